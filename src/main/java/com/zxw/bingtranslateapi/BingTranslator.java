@@ -12,9 +12,14 @@ import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -30,17 +35,57 @@ public class BingTranslator {
      */
     private final OkHttpClient okHttpClient;
     /**
-     * 翻译配置管理器
+     * 翻译端点路由 <br>
+     * 每个端点持有独立的翻译配置管理器
      */
-    private final TranslationConfigManager translationConfigManager;
+    private final EndpointRouter endpointRouter;
 
     public BingTranslator(OkHttpClient okHttpClient) {
         this(okHttpClient, false);
     }
 
     public BingTranslator(OkHttpClient okHttpClient, boolean renewable) {
+        this(okHttpClient, renewable, TranslationConfigManager.DEFAULT_TRANSLATOR_URL);
+    }
+
+    /**
+     * @param okHttpClient {@link OkHttpClient}
+     * @param renewable 是否自动续约翻译配置
+     * @param translatorUrl bing translator 入口地址，默认为 {@link TranslationConfigManager#DEFAULT_TRANSLATOR_URL}
+     */
+    public BingTranslator(OkHttpClient okHttpClient, boolean renewable, String translatorUrl) {
+        this(okHttpClient, renewable, Collections.singletonList(translatorUrl));
+    }
+
+    /**
+     * 使用多个 bing translator 入口地址（比如 https://cn.bing.com/translator、https://www.bing.com/translator），
+     * 每个地址持有独立的会话，每次翻译时根据各端点的耗时及错误情况选择端点。
+     * 初始化失败的端点先被摘除，之后由探测请求恢复
+     *
+     * @param okHttpClient {@link OkHttpClient}
+     * @param renewable 是否自动续约翻译配置
+     * @param translatorUrls bing translator 入口地址列表
+     * @throws TranslationConfigLoadException 当所有端点初始化翻译配置均失败时，抛出该异常
+     */
+    public BingTranslator(OkHttpClient okHttpClient, boolean renewable, List<String> translatorUrls) {
+        if (translatorUrls == null || translatorUrls.isEmpty()) {
+            throw new IllegalArgumentException("Translator urls must not empty.");
+        }
+
+        List<TranslationEndpoint> endpoints = new ArrayList<>(translatorUrls.size());
+        Set<String> resolvedDomains = ConcurrentHashMap.newKeySet();
+
+        for (String translatorUrl : translatorUrls) {
+            endpoints.add(new TranslationEndpoint(okHttpClient, renewable, translatorUrl, resolvedDomains));
+        }
+
+        if (endpoints.stream().allMatch(endpoint -> endpoint.getInitException() != null)) {
+            endpoints.forEach(TranslationEndpoint::close);
+            throw endpoints.get(endpoints.size() - 1).getInitException();
+        }
+
         this.okHttpClient = okHttpClient;
-        this.translationConfigManager = new TranslationConfigManager(okHttpClient, renewable);
+        this.endpointRouter = new EndpointRouter(endpoints);
     }
 
     /**
@@ -65,8 +110,47 @@ public class BingTranslator {
             throw new IllegalArgumentException("Unsupported lang, fromLang: " + params.getFromLang() + ", toLang: " + params.getToLang());
         }
 
+        TranslationEndpoint endpoint = endpointRouter.select();
+        // 探测中的端点仍处于摘除状态
+        boolean probe = endpoint.isEjected();
+
+        try {
+            return translate(endpoint, params);
+        } catch (RuntimeException e) {
+            if (!probe) {
+                throw e;
+            }
+
+            // 探测失败时不让调用方承担失败，在其它可用端点上重试一次
+            TranslationEndpoint fallback = endpointRouter.selectAvailable(endpoint);
+
+            if (fallback == null) {
+                throw e;
+            }
+
+            log.debug("Probe translation endpoint {} failed, retry on {}", endpoint.getTranslatorUrl(), fallback.getTranslatorUrl());
+            return translate(fallback, params);
+        }
+    }
+
+    private TranslationResult translate(TranslationEndpoint endpoint, TranslationParams params) throws TranslationException, TranslationConfigLoadException {
+        long startTime = System.nanoTime();
+
+        try {
+            String responseBody = doTranslateRequest(endpoint.getTranslationConfigManager(), params);
+            long rttMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            TranslationResult result = parseTranslationResult(params, responseBody);
+
+            endpoint.recordSuccess(rttMillis);
+            return result;
+        } catch (RuntimeException e) {
+            endpoint.recordFailure(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            throw e;
+        }
+    }
+
+    private TranslationResult parseTranslationResult(TranslationParams params, String responseBody) throws TranslationException {
         // TODO 优化 json 处理代码
-        String responseBody = doTranslateRequest(params);
         JsonParser jsonParser = new JsonParser();
         JsonElement jsonElement = jsonParser.parse(responseBody);
 
@@ -109,9 +193,9 @@ public class BingTranslator {
         return result;
     }
 
-    private String doTranslateRequest(TranslationParams params) throws TranslationException, TranslationConfigLoadException {
+    private String doTranslateRequest(TranslationConfigManager translationConfigManager, TranslationParams params) throws TranslationException, TranslationConfigLoadException {
         TranslateConfig translateConfig = translationConfigManager.getTranslateConfig();
-        String requestUrl = createRequestUrl(translateConfig);
+        String requestUrl = createRequestUrl(translationConfigManager, translateConfig);
         RequestBody requestBody = createRequestBody(translateConfig, params);
         String userAgent = params.getUserAgent() == null || params.getUserAgent().isBlank() ?
                 DEFAULT_USER_AGENT :
@@ -138,7 +222,7 @@ public class BingTranslator {
         }
     }
 
-    private String createRequestUrl(TranslateConfig translateConfig) {
+    private String createRequestUrl(TranslationConfigManager translationConfigManager, TranslateConfig translateConfig) {
         return String.format("%s&&IG=%s&IID=%s", translationConfigManager.getTranslateApiUrl(), translateConfig.getIG(), translateConfig.getIID());
     }
 
@@ -162,6 +246,6 @@ public class BingTranslator {
     }
 
     public void close() {
-        translationConfigManager.close();
+        endpointRouter.close();
     }
 }
@@ -0,0 +1,108 @@
+package com.zxw.bingtranslateapi;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 翻译端点路由 <br>
+ * 按健康分数为每个请求加权随机选择 {@link TranslationEndpoint}
+ *
+ * <ul>
+ *     <li>优先放行摘除期满、等待探测的端点（每个端点同一时间只放行一个探测请求）。
+ *     探测使用真实的翻译请求，探测失败时由 {@link BingTranslator} 通过 {@link #selectAvailable} 在其它端点上重试一次，
+ *     但发起探测的调用方仍需承担该端点的超时耗时</li>
+ *     <li>其次在未被摘除的端点中加权随机选择，权重 = 1 / max(分数, {@link #MIN_SCORE})。
+ *     分数较差的端点仍会分到少量请求，使其分数得以刷新，同时流量按端点的健康程度分摊，不会集中在单个端点上</li>
+ *     <li>所有端点均被摘除时，选择最早到期的端点，保证请求仍可发出</li>
+ * </ul>
+ */
+class EndpointRouter {
+
+    /**
+     * 计算权重时的最小分数，避免分数为 0 的端点权重无穷大
+     */
+    private static final double MIN_SCORE = 1D;
+
+    private final List<TranslationEndpoint> endpoints;
+
+    EndpointRouter(List<TranslationEndpoint> endpoints) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("Endpoints must not empty.");
+        }
+
+        this.endpoints = List.copyOf(endpoints);
+    }
+
+    TranslationEndpoint select() {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+
+        long now = System.currentTimeMillis();
+        TranslationEndpoint earliestEjected = null;
+
+        for (TranslationEndpoint endpoint : endpoints) {
+            if (!endpoint.isEjected()) {
+                continue;
+            }
+
+            if (endpoint.tryAcquireProbe(now)) {
+                return endpoint;
+            }
+
+            if (earliestEjected == null || endpoint.getEjectedUntil() < earliestEjected.getEjectedUntil()) {
+                earliestEjected = endpoint;
+            }
+        }
+
+        TranslationEndpoint selected = selectAvailable(null);
+        return selected != null ? selected : earliestEjected;
+    }
+
+    /**
+     * 在未被摘除的端点中按健康分数加权随机选择，不放行探测
+     *
+     * @param excluded 排除的端点，可为 null
+     * @return TranslationEndpoint，没有可用端点时返回 null
+     */
+    TranslationEndpoint selectAvailable(TranslationEndpoint excluded) {
+        int size = endpoints.size();
+        double[] weights = new double[size];
+        double totalWeight = 0D;
+
+        for (int i = 0; i < size; i++) {
+            TranslationEndpoint endpoint = endpoints.get(i);
+
+            if (endpoint != excluded && !endpoint.isEjected()) {
+                weights[i] = 1D / Math.max(endpoint.score(), MIN_SCORE);
+                totalWeight += weights[i];
+            }
+        }
+
+        if (totalWeight == 0D) {
+            return null;
+        }
+
+        double random = ThreadLocalRandom.current().nextDouble(totalWeight);
+        TranslationEndpoint selected = null;
+
+        for (int i = 0; i < size; i++) {
+            if (weights[i] == 0D) {
+                continue;
+            }
+
+            selected = endpoints.get(i);
+            random -= weights[i];
+
+            if (random < 0) {
+                break;
+            }
+        }
+
+        return selected;
+    }
+
+    void close() {
+        endpoints.forEach(TranslationEndpoint::close);
+    }
+}
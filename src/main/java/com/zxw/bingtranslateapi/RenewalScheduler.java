@@ -0,0 +1,201 @@
+package com.zxw.bingtranslateapi;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 翻译配置续约调度器 <br>
+ * 进程内所有自动续约的 {@link TranslationConfigManager} 共享同一个调度器，
+ * 无论存在多少个翻译器，线程数及唤醒次数都保持不变
+ *
+ * <p>基于哈希时间轮实现：单个 tick 线程每 {@link #TICK_MILLIS} 毫秒推进一格，将到期的续约任务提交到
+ * 固定大小的续约线程池执行，同时执行的续约任务数不超过 {@link #MAX_CONCURRENT_RENEWALS}。</p>
+ */
+@Slf4j
+class RenewalScheduler {
+
+    /**
+     * 时间轮每格的时长（毫秒）
+     */
+    private static final long TICK_MILLIS = 100L;
+    /**
+     * 时间轮格数，须为 2 的幂
+     */
+    private static final int WHEEL_SIZE = 512;
+    /**
+     * 同时执行的续约任务上限
+     */
+    private static final int MAX_CONCURRENT_RENEWALS = 4;
+
+    private static final RenewalScheduler INSTANCE = new RenewalScheduler();
+
+    /**
+     * 时间轮，仅由 tick 线程访问
+     */
+    private final List<List<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+    /**
+     * 新注册的续约任务 <br>
+     * 由 tick 线程在每次推进时转移到时间轮中
+     */
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    /**
+     * 续约线程池
+     */
+    private final ExecutorService renewalExecutor;
+    /**
+     * 时间轮起始时间（纳秒）
+     */
+    private final long startTime = System.nanoTime();
+    /**
+     * 已推进的格数，仅由 tick 线程访问
+     */
+    private long tick;
+
+    private RenewalScheduler() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+
+        renewalExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT_RENEWALS, daemonThreadFactory("bing-translator-renewal-"));
+
+        Thread tickThread = daemonThreadFactory("bing-translator-renewal-tick-").newThread(this::run);
+        tickThread.start();
+    }
+
+    static RenewalScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册续约任务
+     *
+     * @param task 续约任务
+     * @param delayMillis 延迟毫秒数，<= 0 时在下一格执行
+     * @return Timeout 可用于取消该任务
+     */
+    Timeout schedule(Runnable task, long delayMillis) {
+        long deadline = elapsedMillis() + Math.max(0L, delayMillis);
+        Timeout timeout = new Timeout(task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (true) {
+            long deadline = TICK_MILLIS * (tick + 1);
+            long sleepMillis = deadline - elapsedMillis();
+
+            if (sleepMillis > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    log.warn("Renewal scheduler tick thread interrupted, ignore it.");
+                    continue;
+                }
+            }
+
+            transferPendingTimeouts();
+            expireTimeouts(wheel.get((int) (tick & (WHEEL_SIZE - 1))));
+            tick++;
+        }
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+
+            long calculatedTick = timeout.deadline / TICK_MILLIS;
+            timeout.remainingRounds = (calculatedTick - tick) / WHEEL_SIZE;
+            // 已过期的任务放在当前格，本次推进即执行
+            long targetTick = Math.max(calculatedTick, tick);
+            wheel.get((int) (targetTick & (WHEEL_SIZE - 1))).add(timeout);
+        }
+    }
+
+    private void expireTimeouts(List<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                renewalExecutor.execute(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    private long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    private static ThreadFactory daemonThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 已注册的续约任务
+     */
+    static final class Timeout implements Runnable {
+
+        private final Runnable task;
+        /**
+         * 到期时间，相对于 {@link #startTime} 的毫秒数
+         */
+        private final long deadline;
+        /**
+         * 剩余圈数，仅由 tick 线程访问
+         */
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消续约任务，已开始执行的任务不受影响
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("Run renewal task occur a error.", t);
+            }
+        }
+    }
+}
@@ -11,9 +11,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -27,11 +25,34 @@ import java.util.regex.Pattern;
 @Slf4j
 public class TranslationConfigManager {
 
+    /**
+     * 默认的 bing translator 入口地址
+     */
+    public static final String DEFAULT_TRANSLATOR_URL = "https://bing.com/translator";
+
     /**
      * 重新加载配置的阈值 <br>
      * 当配置过期时间 < reloadThreshold 时，触发重新加载配置逻辑
      */
     private final int reloadThreshold = 1000;
+    /**
+     * 加载配置失败后重试续约的初始间隔（毫秒），连续失败时翻倍
+     */
+    private final long renewalRetryInterval = 1000L;
+    /**
+     * 加载配置失败后重试续约的最大间隔（毫秒）
+     */
+    private final long maxRenewalRetryInterval = 60000L;
+    /**
+     * 续约时机占 token 有效期的比例 <br>
+     * 提前续约，以免续约任务在共享的续约线程池中排队时 token 已过期
+     */
+    private final double renewalRatio = 0.8D;
+    /**
+     * 续约时间随机提前量占 token 有效期的最大比例 <br>
+     * 使同时创建的翻译器的续约时间分散开
+     */
+    private final double renewalJitterRatio = 0.1D;
     /**
      * 保证翻译配置线程安全的锁 <br>
      * 获取翻译配置或写入翻译配置时，需要先获取该锁
@@ -40,7 +61,7 @@ public class TranslationConfigManager {
     /**
      * 配置加载完毕 condition <br>
      * 当用户线程获取翻译配置时，翻译配置为 null 或者已过期，则在该 condition 上等待。
-     * 直到定时线程获取翻译配置成功后唤醒等待的线程
+     * 直到续约线程获取翻译配置成功后唤醒等待的线程
      */
     private final Condition loadConfigCondition = lock.newCondition();
     /**
@@ -51,12 +72,26 @@ public class TranslationConfigManager {
      * 是否自动续约翻译配置
      */
     private final boolean renewable;
+    /**
+     * bing translator 入口地址 <br>
+     * 默认为 {@link #DEFAULT_TRANSLATOR_URL}，可指向本地的 {@link com.zxw.bingtranslateapi.replay.FakeBingServer} 进行离线测试
+     */
+    private final String translatorUrl;
 
     /**
-     * 定时线程池<br>
-     * 用于定时更新翻译配置
+     * 已注册到 {@link RenewalScheduler} 的下一次续约任务 <br>
+     * 关闭时取消该任务
+     */
+    private volatile RenewalScheduler.Timeout renewalTimeout;
+    /**
+     * 是否已关闭 <br>
+     * 与 {@link #renewalTimeout} 一同由 this monitor 守护，避免关闭后仍注册新的续约任务
      */
-    private ScheduledExecutorService scheduledExecutorService;
+    private volatile boolean closed;
+    /**
+     * 续约连续失败次数，由 this monitor 守护，续约成功后清零
+     */
+    private int renewalFailures = 0;
     /**
      * 翻译配置 <br>
      * 该对象线程安全由 {@link #lock} 守护
@@ -64,7 +99,7 @@ public class TranslationConfigManager {
     private volatile TranslateConfig translateConfig;
     /**
      * 最近加载配置时出现的异常 <br>
-     * 当该异常不为空时，代表最近一次加载配置时出现了异常，此时调用 {@link #getTranslateConfig}
+     * 当该异常不为空时，代表最近一次加载配置时出现了异常，此时若翻译配置已过期，调用 {@link #getTranslateConfig}
      * 方法时会抛出 {@link TranslationConfigLoadException} 异常
      */
     private volatile TranslationConfigLoadException latestConfigLoadException = null;
@@ -107,21 +142,74 @@ public class TranslationConfigManager {
      * @throws TranslationConfigLoadException 当初始化翻译参数时出现错误时，抛出该异常
      */
     public TranslationConfigManager(OkHttpClient okHttpClient, boolean renewable) throws TranslationConfigLoadException {
+        this(okHttpClient, renewable, DEFAULT_TRANSLATOR_URL);
+    }
+
+    /**
+     * TranslationConfigManager construct
+     *
+     * @param okHttpClient {@link OkHttpClient}
+     * @param renewable 是否自动续约翻译配置
+     * @param translatorUrl bing translator 入口地址
+     * @throws TranslationConfigLoadException 当初始化翻译参数时出现错误时，抛出该异常
+     */
+    public TranslationConfigManager(OkHttpClient okHttpClient, boolean renewable, String translatorUrl) throws TranslationConfigLoadException {
         this.okHttpClient = okHttpClient;
         this.renewable = renewable;
+        this.translatorUrl = translatorUrl;
 
         determineTranslateDomain();
 
         if (renewable) {
-            scheduledExecutorService = Executors.newScheduledThreadPool(1);
-            scheduledExecutorService.scheduleAtFixedRate(this::loadConfig, 0L, 1000L, TimeUnit.MILLISECONDS);
+            scheduleRenewal();
+        }
+    }
+
+    /**
+     * 按当前翻译配置的过期时间注册下一次续约 <br>
+     * 续约时间 = tokenTs + tokenExpiryInterval * ({@link #renewalRatio} - [0, {@link #renewalJitterRatio}) 内的随机值)，
+     * 加载配置失败时以 {@link #renewalRetryInterval} 起、最大 {@link #maxRenewalRetryInterval} 的指数退避间隔重试，
+     * 避免失败的续约长期占用共享的续约线程
+     */
+    private synchronized void scheduleRenewal() {
+        if (closed) {
+            return;
+        }
+
+        TranslateConfig config = translateConfig;
+        long delay;
+
+        if (latestConfigLoadException != null || config == null || config.getTokenTs() == null || config.getTokenExpiryInterval() == null) {
+            delay = Math.min(renewalRetryInterval << Math.min(renewalFailures, 16), maxRenewalRetryInterval);
+            renewalFailures++;
+        } else {
+            renewalFailures = 0;
+
+            double ratio = renewalRatio - ThreadLocalRandom.current().nextDouble(renewalJitterRatio);
+            delay = config.getTokenTs() + (long) (config.getTokenExpiryInterval() * ratio) - new Date().getTime();
+        }
+
+        // 本地时钟与 bing 时钟偏差较大时，避免在每一格都重新加载配置
+        delay = Math.max(delay, renewalRetryInterval);
+
+        renewalTimeout = RenewalScheduler.getInstance().schedule(this::renew, delay);
+
+        log.debug("Schedule translation config renewal after {}ms", delay);
+    }
+
+    private void renew() {
+        try {
+            // 失败重试由 scheduleRenewal 退避完成，这里只尝试一次
+            reloadConfig(1);
+        } finally {
+            scheduleRenewal();
         }
     }
 
     private void determineTranslateDomain() throws TranslationConfigLoadException {
         Request request = new Request.Builder()
                 .addHeader("user-agent", BingTranslator.DEFAULT_USER_AGENT)
-                .url("https://bing.com/translator")
+                .url(translatorUrl)
                 .build();
 
         try (Response response = okHttpClient.newCall(request).execute()) {
@@ -151,11 +239,15 @@ public class TranslationConfigManager {
             return;
         }
 
+        reloadConfig(3);
+    }
+
+    private void reloadConfig(int maxRetryTimes) {
         log.debug("Reload translation config!");
 
         IOException occuredIOException = null;
 
-        for (int i = 0, maxRetryTimes = 3; i < maxRetryTimes; i++) {
+        for (int i = 0; i < maxRetryTimes; i++) {
             Request request = new Request.Builder()
                     .addHeader("user-agent", BingTranslator.DEFAULT_USER_AGENT)
                     .url(translatePageUrl)
@@ -181,11 +273,11 @@ public class TranslationConfigManager {
             }
         }
 
-        latestConfigLoadException = new TranslationConfigLoadException("Load bing translator config failed, retry 3 times.", occuredIOException);
+        latestConfigLoadException = new TranslationConfigLoadException("Load bing translator config failed, retry " + maxRetryTimes + " times.", occuredIOException);
     }
 
     private boolean isExpirationSoon(TranslateConfig config) {
-        return new Date().getTime() - reloadThreshold - config.getTokenTs() > config.getTokenExpiryInterval();
+        return new Date().getTime() + reloadThreshold - config.getTokenTs() > config.getTokenExpiryInterval();
     }
 
     private TranslateConfig parseTranslatorPage(Response response) throws IOException {
@@ -237,7 +329,8 @@ public class TranslationConfigManager {
      * @throws TranslationConfigLoadException 当获取翻译配置失败时，抛出该异常
      */
     public TranslateConfig getTranslateConfig() throws TranslationConfigLoadException {
-        if (latestConfigLoadException != null) {
+        // 提前续约失败时，当前 token 仍可继续使用
+        if (latestConfigLoadException != null && translateConfig.isTokenExpired()) {
             throw latestConfigLoadException;
         }
 
@@ -249,7 +342,7 @@ public class TranslationConfigManager {
                 if (!renewable) {
                     loadConfig();
                 }
-                // 自动续约时，加载新配置由定时线程完成
+                // 自动续约时，加载新配置由续约线程完成
                 // 完成后唤醒在该 condition 上等待的所有线程
                 else {
                     loadConfigCondition.await();
@@ -268,15 +361,11 @@ public class TranslationConfigManager {
     /**
      * 关闭翻译配置管理器
      */
-    public void close() {
-        if (Objects.nonNull(scheduledExecutorService)) {
-            scheduledExecutorService.shutdown();
+    public synchronized void close() {
+        closed = true;
 
-            try {
-                scheduledExecutorService.awaitTermination(10, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+        if (Objects.nonNull(renewalTimeout)) {
+            renewalTimeout.cancel();
         }
     }
 }
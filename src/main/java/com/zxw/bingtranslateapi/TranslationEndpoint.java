@@ -0,0 +1,259 @@
+package com.zxw.bingtranslateapi;
+
+import com.zxw.bingtranslateapi.exception.TranslationConfigLoadException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+
+import java.util.Set;
+
+/**
+ * 翻译端点 <br>
+ * 对应一个 bing translator 入口地址，持有独立的 {@link TranslationConfigManager}（即独立的会话），
+ * 并根据请求耗时及错误的 EWMA（指数加权移动平均）计算健康分数，供 {@link EndpointRouter} 选择端点
+ *
+ * <p>连续失败 {@link #EJECT_THRESHOLD} 次后端点被摘除，摘除期满后只放行一个探测请求：
+ * 探测成功则恢复，失败则以翻倍的时长再次摘除。初始化翻译配置失败的端点同样以摘除状态创建，由探测请求重新初始化。</p>
+ */
+@Slf4j
+class TranslationEndpoint {
+
+    /**
+     * EWMA 平滑系数，越大越偏重最近的样本
+     */
+    private static final double EWMA_ALPHA = 0.3D;
+    /**
+     * 错误率对分数的惩罚系数 <br>
+     * 分数 = ewmaRtt * (1 + ERROR_PENALTY * ewmaErrorRate)
+     */
+    private static final double ERROR_PENALTY = 10D;
+    /**
+     * 失败请求计入 EWMA 的最小耗时（毫秒），避免快速失败的端点因耗时短而获得更好的分数
+     */
+    private static final long FAILURE_RTT_MILLIS = 1000L;
+    /**
+     * 触发摘除的连续失败次数
+     */
+    private static final int EJECT_THRESHOLD = 5;
+    /**
+     * 首次摘除时长（毫秒）
+     */
+    private static final long BASE_EJECT_MILLIS = 10000L;
+    /**
+     * 最长摘除时长（毫秒）
+     */
+    private static final long MAX_EJECT_MILLIS = 300000L;
+
+    private final OkHttpClient okHttpClient;
+    private final boolean renewable;
+    @Getter
+    private final String translatorUrl;
+    /**
+     * 同一个翻译器内所有端点解析出的 bing translator 域名 <br>
+     * 用于发现重定向到同一域名（共享同一限流）的端点
+     */
+    private final Set<String> resolvedDomains;
+
+    /**
+     * 初始化翻译配置管理器的锁 <br>
+     * 初始化需要请求 bing translator 页面，不能持有 this monitor，否则路由选择（{@link #tryAcquireProbe}）会被阻塞
+     */
+    private final Object initLock = new Object();
+    /**
+     * 翻译配置管理器，初始化失败时为 null，由 {@link #getTranslationConfigManager} 重新初始化 <br>
+     * 该对象的写入由 {@link #initLock} 守护
+     */
+    private volatile TranslationConfigManager translationConfigManager;
+    /**
+     * 初始化翻译配置时出现的异常
+     */
+    @Getter
+    private volatile TranslationConfigLoadException initException;
+    private volatile boolean closed = false;
+
+    /**
+     * 以下统计数据的写入由 this monitor 守护
+     */
+    private volatile double ewmaRtt = -1D;
+    private volatile double ewmaErrorRate = 0D;
+    private int consecutiveFailures = 0;
+    private int ejections = 0;
+    private volatile boolean ejected = false;
+    private volatile long ejectedUntil = 0L;
+    /**
+     * 是否已有探测请求在进行中
+     */
+    private boolean probing = false;
+
+    /**
+     * 创建端点并初始化翻译配置，初始化失败时端点以摘除状态创建
+     *
+     * @param okHttpClient {@link OkHttpClient}
+     * @param renewable 是否自动续约翻译配置
+     * @param translatorUrl bing translator 入口地址
+     * @param resolvedDomains 同一翻译器内各端点共享的已解析域名集合，须线程安全
+     */
+    TranslationEndpoint(OkHttpClient okHttpClient, boolean renewable, String translatorUrl, Set<String> resolvedDomains) {
+        this.okHttpClient = okHttpClient;
+        this.renewable = renewable;
+        this.translatorUrl = translatorUrl;
+        this.resolvedDomains = resolvedDomains;
+
+        try {
+            getTranslationConfigManager();
+        } catch (TranslationConfigLoadException e) {
+            long ejectMillis;
+            synchronized (this) {
+                ejectMillis = eject();
+            }
+
+            log.warn("Init translation endpoint {} failed, ejected for {}ms.", translatorUrl, ejectMillis, e);
+        }
+    }
+
+    /**
+     * 获取翻译配置管理器，尚未初始化成功时进行初始化
+     *
+     * @return TranslationConfigManager
+     * @throws TranslationConfigLoadException 当初始化翻译配置失败，或端点已关闭时，抛出该异常
+     */
+    TranslationConfigManager getTranslationConfigManager() throws TranslationConfigLoadException {
+        TranslationConfigManager configManager = translationConfigManager;
+
+        if (configManager != null) {
+            return configManager;
+        }
+
+        synchronized (initLock) {
+            if (translationConfigManager != null) {
+                return translationConfigManager;
+            }
+
+            if (closed) {
+                throw new TranslationConfigLoadException("Translation endpoint " + translatorUrl + " is closed.");
+            }
+
+            try {
+                configManager = new TranslationConfigManager(okHttpClient, renewable, translatorUrl);
+            } catch (TranslationConfigLoadException e) {
+                initException = e;
+                throw e;
+            }
+
+            if (!resolvedDomains.add(configManager.getTranslateDomain())) {
+                log.warn("Translation endpoint {} resolved to domain {} which is already used by another endpoint, " +
+                        "they will share the same throttling.", translatorUrl, configManager.getTranslateDomain());
+            }
+
+            translationConfigManager = configManager;
+            initException = null;
+
+            // 初始化期间端点被关闭时，close 可能未看到新建的配置管理器
+            if (closed) {
+                configManager.close();
+                throw new TranslationConfigLoadException("Translation endpoint " + translatorUrl + " is closed.");
+            }
+
+            return configManager;
+        }
+    }
+
+    /**
+     * 健康分数，越小越好 <br>
+     * 尚无样本的端点分数为 0
+     */
+    double score() {
+        double rtt = ewmaRtt;
+        return rtt < 0 ? 0D : rtt * (1 + ERROR_PENALTY * ewmaErrorRate);
+    }
+
+    boolean isEjected() {
+        return ejected;
+    }
+
+    long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+    /**
+     * 摘除期满时尝试获取探测资格，同一时间只有一个请求能获取成功
+     *
+     * @param now 当前时间戳
+     * @return 是否获取成功
+     */
+    synchronized boolean tryAcquireProbe(long now) {
+        if (!ejected || now < ejectedUntil || probing) {
+            return false;
+        }
+
+        probing = true;
+        return true;
+    }
+
+    /**
+     * 记录一次成功的请求
+     *
+     * @param rttMillis 请求耗时（毫秒）
+     */
+    synchronized void recordSuccess(long rttMillis) {
+        updateRtt(rttMillis);
+        ewmaErrorRate = (1 - EWMA_ALPHA) * ewmaErrorRate;
+        consecutiveFailures = 0;
+        probing = false;
+
+        if (ejected) {
+            ejected = false;
+            ejections = 0;
+            log.info("Translation endpoint {} recovered.", translatorUrl);
+        }
+    }
+
+    /**
+     * 记录一次失败的请求
+     *
+     * @param elapsedMillis 请求耗时（毫秒），计入 EWMA 时不小于 {@link #FAILURE_RTT_MILLIS}
+     */
+    synchronized void recordFailure(long elapsedMillis) {
+        updateRtt(Math.max(elapsedMillis, FAILURE_RTT_MILLIS));
+        ewmaErrorRate = EWMA_ALPHA + (1 - EWMA_ALPHA) * ewmaErrorRate;
+        consecutiveFailures++;
+
+        // 探测失败，或者连续失败次数达到阈值时摘除
+        if (probing || (!ejected && consecutiveFailures >= EJECT_THRESHOLD)) {
+            long ejectMillis = eject();
+            log.warn("Translation endpoint {} ejected for {}ms, consecutive failures: {}", translatorUrl, ejectMillis, consecutiveFailures);
+        }
+    }
+
+    private void updateRtt(long rttMillis) {
+        ewmaRtt = ewmaRtt < 0 ? rttMillis : EWMA_ALPHA * rttMillis + (1 - EWMA_ALPHA) * ewmaRtt;
+    }
+
+    /**
+     * 摘除端点，摘除时长随连续摘除次数翻倍 <br>
+     * 调用方须持有 this monitor
+     *
+     * @return 摘除时长（毫秒）
+     */
+    private long eject() {
+        long ejectMillis = Math.min(BASE_EJECT_MILLIS << Math.min(ejections, 16), MAX_EJECT_MILLIS);
+        ejections++;
+        ejected = true;
+        ejectedUntil = System.currentTimeMillis() + ejectMillis;
+        probing = false;
+
+        return ejectMillis;
+    }
+
+    /**
+     * 关闭端点，不等待进行中的初始化
+     */
+    void close() {
+        closed = true;
+
+        TranslationConfigManager configManager = translationConfigManager;
+        if (configManager != null) {
+            configManager.close();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.zxw.bingtranslateapi.replay;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 可嵌入的本地 bing translator 模拟服务 <br>
+ * 回放 {@link TrafficRecorder} 录制的响应，用于在不访问 bing.com 的情况下进行压测、稳定性测试
+ *
+ * <ul>
+ *     <li>{@code /translator}：返回 translator 页面，每次请求都会下发新的 token</li>
+ *     <li>{@code /ttranslatev3}：优先回放与请求文本相同的录制响应，其次轮流回放录制响应，无录制时按请求生成翻译结果</li>
+ * </ul>
+ *
+ * 支持配置响应延迟分布、401 及 {"ShowCaptcha": true} 注入、token 过期，参见 {@link FakeServerOptions}。
+ *
+ * <p>基于 jdk {@link HttpServer} 实现，其默认开启 Nagle 算法，与客户端的延迟确认叠加后每个请求约增加 40ms。
+ * 压测时建议以 {@code -Dsun.net.httpserver.nodelay=true} 启动 JVM（或在进程内首次创建 HttpServer 之前设置该系统属性），
+ * 该属性对进程内所有 HttpServer 生效。</p>
+ *
+ * <pre>{@code
+ * try (FakeBingServer server = new FakeBingServer(FakeServerOptions.builder().build())) {
+ *     server.start();
+ *     BingTranslator translator = new BingTranslator(httpClient, true, server.getTranslatorUrl());
+ *     ...
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class FakeBingServer implements Closeable {
+
+    private static final Pattern PARAMS_PATTERN = Pattern.compile("params_AbusePreventionHelper\\s*=\\s*\\[\\s*(\\d+),\\s*\"(.*?)\",\\s*(\\d+)\\s*\\]");
+    private static final String DEFAULT_PAGE = "<html><head><script type=\"text/javascript\">" +
+            "_G={IG:\"FAKEBINGIG0000000000000000000000\"};" +
+            "var params_AbusePreventionHelper = [0,\"\",0];" +
+            "</script></head><body><div id=\"rich_tta\" data-iid=\"translator.5028\"></div></body></html>";
+    /**
+     * token 无效或过期时的响应
+     */
+    private static final String TOKEN_EXPIRED_BODY = "{\"statusCode\":205}";
+    private static final String CAPTCHA_BODY = "{\"ShowCaptcha\":true}";
+
+    private final Gson gson = new Gson();
+    private final FakeServerOptions options;
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+    private final List<RecordedExchange> recordedPages = new ArrayList<>();
+    private final List<String> recordedTranslations = new ArrayList<>();
+    /**
+     * 请求文本 -> 录制的翻译响应
+     */
+    private final Map<String, String> recordedTranslationsByText = new HashMap<>();
+    /**
+     * 已下发的 token -> 下发时间戳
+     */
+    private final Map<String, Long> issuedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong replayCursor = new AtomicLong();
+
+    /**
+     * translator 页面请求次数
+     */
+    private final AtomicLong pageRequestCount = new AtomicLong();
+    /**
+     * 翻译接口请求次数
+     */
+    private final AtomicLong translateRequestCount = new AtomicLong();
+
+    /**
+     * 模拟服务的 translator 页面地址，作为 {@link com.zxw.bingtranslateapi.BingTranslator} 的入口地址
+     */
+    @Getter
+    private final String translatorUrl;
+
+    /**
+     * @param options 模拟服务配置
+     * @throws IOException 当读取录制文件或绑定端口失败时，抛出该异常
+     */
+    public FakeBingServer(FakeServerOptions options) throws IOException {
+        this.options = options;
+
+        if (options.getRecordFile() != null) {
+            loadRecordFile();
+        }
+
+        InetAddress address = InetAddress.getLoopbackAddress();
+        httpServer = HttpServer.create(new InetSocketAddress(address, options.getPort()), 1024);
+        executorService = Executors.newCachedThreadPool();
+        httpServer.setExecutor(executorService);
+        httpServer.createContext(RecordedExchange.TRANSLATOR_PAGE_PATH, this::handleTranslatorPage);
+        httpServer.createContext(RecordedExchange.TRANSLATE_API_PATH, this::handleTranslate);
+
+        translatorUrl = "http://" + address.getHostAddress() + ":" + httpServer.getAddress().getPort()
+                + RecordedExchange.TRANSLATOR_PAGE_PATH;
+    }
+
+    private void loadRecordFile() throws IOException {
+        for (String line : Files.readAllLines(options.getRecordFile(), StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            RecordedExchange exchange = gson.fromJson(line, RecordedExchange.class);
+
+            if (exchange.getCode() == null || exchange.getCode() != 200 || exchange.getBody() == null) {
+                continue;
+            }
+
+            if (exchange.getType() == RecordedExchange.Type.TRANSLATOR_PAGE) {
+                // 验证码页等不含 params_AbusePreventionHelper 的页面无法下发 token，不回放
+                if (PARAMS_PATTERN.matcher(exchange.getBody()).find()) {
+                    recordedPages.add(exchange);
+                } else {
+                    log.warn("Skip recorded translator page without params_AbusePreventionHelper.");
+                }
+            }
+            // 只回放正常的翻译结果，401 及验证码由注入概率控制
+            else if (exchange.getType() == RecordedExchange.Type.TRANSLATE && exchange.getBody().startsWith("[")) {
+                recordedTranslations.add(exchange.getBody());
+
+                String text = parseForm(exchange.getRequestBody()).get("text");
+                if (text != null) {
+                    recordedTranslationsByText.put(text, exchange.getBody());
+                }
+            }
+        }
+
+        log.info("Load {} translator pages and {} translations from {}",
+                recordedPages.size(), recordedTranslations.size(), options.getRecordFile());
+    }
+
+    /**
+     * 启动模拟服务
+     */
+    public void start() {
+        httpServer.start();
+        log.info("Fake bing server started at {}", translatorUrl);
+    }
+
+    /**
+     * 使已下发的所有 token 立即失效，此后翻译接口对这些 token 返回 {@value #TOKEN_EXPIRED_BODY}
+     */
+    public void expireTokens() {
+        issuedTokens.clear();
+    }
+
+    public long getPageRequestCount() {
+        return pageRequestCount.get();
+    }
+
+    public long getTranslateRequestCount() {
+        return translateRequestCount.get();
+    }
+
+    private void handleTranslatorPage(HttpExchange exchange) throws IOException {
+        try {
+            long requestCount = pageRequestCount.incrementAndGet();
+            sleep(options.getPageLatency());
+
+            RecordedExchange recordedPage = recordedPages.isEmpty() ?
+                    null :
+                    recordedPages.get((int) (requestCount % recordedPages.size()));
+            String page = recordedPage == null ? DEFAULT_PAGE : recordedPage.getBody();
+            List<String> cookies = recordedPage == null || recordedPage.getCookies() == null ?
+                    Collections.singletonList("MUID=" + UUID.randomUUID().toString().replace("-", "").toUpperCase() + "; path=/") :
+                    recordedPage.getCookies();
+
+            long tokenTs = new Date().getTime();
+            String token = UUID.randomUUID().toString().replace("-", "");
+            issuedTokens.put(token, tokenTs);
+
+            // 以新的 token 及过期时间替换录制页面中的 params_AbusePreventionHelper
+            String params = String.format("params_AbusePreventionHelper = [%d,\"%s\",%d]", tokenTs, token, options.getTokenExpiryInterval());
+            page = PARAMS_PATTERN.matcher(page).replaceFirst(Matcher.quoteReplacement(params));
+
+            exchange.getResponseHeaders().set("content-type", "text/html; charset=utf-8");
+            cookies.forEach(cookie -> exchange.getResponseHeaders().add("set-cookie", cookie));
+            respond(exchange, 200, page);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleTranslate(HttpExchange exchange) throws IOException {
+        try {
+            translateRequestCount.incrementAndGet();
+            String requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            sleep(options.getTranslateLatency());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < options.getUnauthorizedRate()) {
+                respond(exchange, 401, "");
+                return;
+            }
+
+            exchange.getResponseHeaders().set("content-type", "application/json; charset=utf-8");
+
+            if (random.nextDouble() < options.getCaptchaRate()) {
+                respond(exchange, 200, CAPTCHA_BODY);
+                return;
+            }
+
+            Map<String, String> form = parseForm(requestBody);
+            Long tokenTs = issuedTokens.get(form.getOrDefault("token", ""));
+            if (tokenTs == null || new Date().getTime() - tokenTs > options.getTokenExpiryInterval()) {
+                respond(exchange, 200, TOKEN_EXPIRED_BODY);
+                return;
+            }
+
+            respond(exchange, 200, translationOf(form));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String translationOf(Map<String, String> form) {
+        String text = form.getOrDefault("text", "");
+        String recorded = recordedTranslationsByText.get(text);
+
+        if (recorded != null) {
+            return recorded;
+        }
+
+        if (!recordedTranslations.isEmpty()) {
+            return recordedTranslations.get((int) (replayCursor.getAndIncrement() % recordedTranslations.size()));
+        }
+
+        JsonObject detectedLanguage = new JsonObject();
+        detectedLanguage.addProperty("language", "auto-detect".equals(form.get("fromLang")) ? "zh-Hans" : form.get("fromLang"));
+        detectedLanguage.addProperty("score", 1.0);
+
+        JsonObject translation = new JsonObject();
+        translation.addProperty("text", text);
+        translation.addProperty("to", form.getOrDefault("to", "en"));
+
+        JsonArray translations = new JsonArray();
+        translations.add(translation);
+
+        JsonObject response = new JsonObject();
+        response.add("detectedLanguage", detectedLanguage);
+        response.add("translations", translations);
+
+        JsonArray responses = new JsonArray();
+        responses.add(response);
+
+        return gson.toJson(responses);
+    }
+
+    /**
+     * 解析翻译请求的表单参数 <br>
+     * BingTranslator 发送的表单参数未经 url 编码，这里按原样切分
+     */
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+
+        if (body == null || body.isEmpty()) {
+            return form;
+        }
+
+        for (String pair : body.split("&")) {
+            String[] kv = pair.split("=", 2);
+            form.put(kv[0], kv.length > 1 ? kv[1] : "");
+        }
+
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+
+        if (bytes.length > 0) {
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        }
+    }
+
+    private static void sleep(LatencyDistribution latency) {
+        long delay = latency.nextDelayMillis();
+
+        if (delay <= 0) {
+            return;
+        }
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 关闭模拟服务
+     */
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executorService.shutdown();
+
+        try {
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.zxw.bingtranslateapi.replay;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * {@link FakeBingServer} 配置
+ */
+@Data
+@Builder
+public class FakeServerOptions {
+    /**
+     * 监听端口，为 0 时随机选择可用端口
+     */
+    @Builder.Default
+    private int port = 0;
+    /**
+     * {@link TrafficRecorder} 生成的录制文件，为 null 时使用内置的页面及翻译结果
+     */
+    private Path recordFile;
+    /**
+     * bing translator 页面响应延迟分布
+     */
+    @Builder.Default
+    private LatencyDistribution pageLatency = LatencyDistribution.NONE;
+    /**
+     * 翻译接口响应延迟分布
+     */
+    @Builder.Default
+    private LatencyDistribution translateLatency = LatencyDistribution.NONE;
+    /**
+     * 翻译接口响应 401 的概率，取值 [0, 1]
+     */
+    @Builder.Default
+    private double unauthorizedRate = 0D;
+    /**
+     * 翻译接口响应 {"ShowCaptcha": true} 的概率，取值 [0, 1]
+     */
+    @Builder.Default
+    private double captchaRate = 0D;
+    /**
+     * 下发 token 的有效期（毫秒），即页面中 params_AbusePreventionHelper 的第三个参数
+     */
+    @Builder.Default
+    private long tokenExpiryInterval = 3600000L;
+}
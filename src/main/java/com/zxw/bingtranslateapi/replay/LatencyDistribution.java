@@ -0,0 +1,75 @@
+package com.zxw.bingtranslateapi.replay;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 响应延迟分布 <br>
+ * {@link FakeBingServer} 在返回每个响应前，按该分布采样出的毫秒数进行等待
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * 无延迟
+     */
+    LatencyDistribution NONE = () -> 0L;
+
+    /**
+     * 采样下一次响应的延迟
+     *
+     * @return 延迟毫秒数，<= 0 时不等待
+     */
+    long nextDelayMillis();
+
+    /**
+     * 固定延迟
+     *
+     * @param millis 延迟毫秒数
+     * @return LatencyDistribution
+     */
+    static LatencyDistribution fixed(long millis) {
+        return () -> millis;
+    }
+
+    /**
+     * [minMillis, maxMillis] 区间内的均匀分布
+     *
+     * @param minMillis 最小延迟毫秒数
+     * @param maxMillis 最大延迟毫秒数
+     * @return LatencyDistribution
+     */
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        if (minMillis > maxMillis) {
+            throw new IllegalArgumentException("minMillis must not greater than maxMillis.");
+        }
+
+        return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+    }
+
+    /**
+     * 正态分布，负值截断为 0
+     *
+     * @param meanMillis 平均延迟毫秒数
+     * @param stdDevMillis 标准差
+     * @return LatencyDistribution
+     */
+    static LatencyDistribution normal(double meanMillis, double stdDevMillis) {
+        return () -> Math.max(0L, Math.round(meanMillis + ThreadLocalRandom.current().nextGaussian() * stdDevMillis));
+    }
+
+    /**
+     * 对数正态分布，常用于模拟带长尾的网络延迟
+     *
+     * @param medianMillis 延迟中位数
+     * @param sigma 对数标准差，越大长尾越明显
+     * @return LatencyDistribution
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        if (medianMillis <= 0) {
+            throw new IllegalArgumentException("medianMillis must greater than 0.");
+        }
+
+        double mu = Math.log(medianMillis);
+        return () -> Math.round(Math.exp(mu + ThreadLocalRandom.current().nextGaussian() * sigma));
+    }
+}
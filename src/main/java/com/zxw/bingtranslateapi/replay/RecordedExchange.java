@@ -0,0 +1,61 @@
+package com.zxw.bingtranslateapi.replay;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 录制的一次 bing 请求/响应 <br>
+ * 由 {@link TrafficRecorder} 以 JSON Lines 格式写入录制文件，由 {@link FakeBingServer} 读取并回放
+ */
+@Data
+public class RecordedExchange {
+
+    public static final String TRANSLATOR_PAGE_PATH = "/translator";
+    public static final String TRANSLATE_API_PATH = "/ttranslatev3";
+
+    private Type type;
+    /**
+     * 录制时间戳（毫秒）
+     */
+    private Long timestamp;
+    /**
+     * 请求体，仅 {@link Type#TRANSLATE} 类型记录
+     */
+    private String requestBody;
+    private Integer code;
+    /**
+     * 响应中的 set-cookie 头
+     */
+    private List<String> cookies;
+    private String body;
+
+    public enum Type {
+        /**
+         * bing translator 页面，对应 TranslationConfigManager#parseTranslatorPage 所解析的响应
+         */
+        TRANSLATOR_PAGE,
+        /**
+         * 翻译接口，对应 BingTranslator#doTranslateRequest 的请求
+         */
+        TRANSLATE;
+
+        /**
+         * 根据请求路径判断录制类型
+         *
+         * @param path 请求路径
+         * @return 录制类型，无需录制时返回 null
+         */
+        public static Type of(String path) {
+            if (path.endsWith(TRANSLATOR_PAGE_PATH)) {
+                return TRANSLATOR_PAGE;
+            }
+
+            if (path.endsWith(TRANSLATE_API_PATH)) {
+                return TRANSLATE;
+            }
+
+            return null;
+        }
+    }
+}
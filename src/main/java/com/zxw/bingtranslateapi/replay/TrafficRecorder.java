@@ -0,0 +1,102 @@
+package com.zxw.bingtranslateapi.replay;
+
+import com.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Buffer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+
+/**
+ * 流量录制器 <br>
+ * 作为 okhttp 的 application interceptor 使用，将 bing translator 页面及翻译接口的响应录制到文件中，
+ * 录制文件可交由 {@link FakeBingServer} 回放
+ *
+ * <pre>{@code
+ * TrafficRecorder recorder = new TrafficRecorder(Paths.get("bing-record.jsonl"));
+ * OkHttpClient httpClient = new OkHttpClient().newBuilder()
+ *         .addInterceptor(recorder)
+ *         .build();
+ * }</pre>
+ */
+@Slf4j
+public class TrafficRecorder implements Interceptor, Closeable {
+
+    private final Gson gson = new Gson();
+    /**
+     * 录制文件 writer <br>
+     * 该对象线程安全由自身 monitor 守护
+     */
+    private final BufferedWriter writer;
+
+    /**
+     * @param recordFile 录制文件，已存在时追加写入
+     * @throws IOException 当打开录制文件失败时，抛出该异常
+     */
+    public TrafficRecorder(Path recordFile) throws IOException {
+        this.writer = Files.newBufferedWriter(recordFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        // okhttp 自动处理重定向，以最终的请求地址判断
+        RecordedExchange.Type type = RecordedExchange.Type.of(response.request().url().encodedPath());
+
+        if (type == null) {
+            return response;
+        }
+
+        // 录制失败不应影响正常的翻译请求
+        try {
+            record(type, request, response);
+        } catch (IOException e) {
+            log.error("Record {} exchange failed.", type, e);
+        }
+
+        return response;
+    }
+
+    private void record(RecordedExchange.Type type, Request request, Response response) throws IOException {
+        RecordedExchange exchange = new RecordedExchange();
+        exchange.setType(type);
+        exchange.setTimestamp(new Date().getTime());
+        exchange.setCode(response.code());
+        exchange.setCookies(response.headers("set-cookie"));
+        // peekBody 不会消费原响应体
+        exchange.setBody(response.peekBody(Long.MAX_VALUE).string());
+
+        if (type == RecordedExchange.Type.TRANSLATE && request.body() != null) {
+            Buffer buffer = new Buffer();
+            request.body().writeTo(buffer);
+            exchange.setRequestBody(buffer.readUtf8());
+        }
+
+        String line = gson.toJson(exchange);
+        synchronized (writer) {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        }
+
+        log.debug("Record {} exchange, code: {}", type, exchange.getCode());
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.zxw.bingtranslateapi;
+
+import com.zxw.bingtranslateapi.entity.TranslationParams;
+import com.zxw.bingtranslateapi.exception.TranslationConfigLoadException;
+import com.zxw.bingtranslateapi.exception.TranslationException;
+import com.zxw.bingtranslateapi.exception.TranslationOverLimitException;
+import com.zxw.bingtranslateapi.replay.FakeBingServer;
+import com.zxw.bingtranslateapi.replay.FakeServerOptions;
+import com.zxw.bingtranslateapi.replay.LatencyDistribution;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 {@link FakeBingServer} 的离线全链路测试，无需访问 bing.com
+ */
+public class FakeBingServerTests {
+
+    public static void main(String[] args) throws Exception {
+        // 关闭 jdk HttpServer 的 Nagle 算法，须在创建 FakeBingServer 之前设置
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        OkHttpClient httpClient = new OkHttpClient().newBuilder()
+                .connectionPool(new ConnectionPool(64, 1, TimeUnit.MINUTES))
+                .build();
+        httpClient.dispatcher().setMaxRequestsPerHost(64);
+
+        renewal(httpClient);
+        injection(httpClient);
+        sharedScheduler(httpClient);
+        routing(httpClient);
+        hangingEndpoint();
+
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * token 有效期 3s，持续请求 10s，观察配置续约次数
+     */
+    private static void renewal(OkHttpClient httpClient) throws Exception {
+        FakeServerOptions options = FakeServerOptions.builder()
+                .tokenExpiryInterval(3000L)
+                .translateLatency(LatencyDistribution.uniform(1, 5))
+                .build();
+
+        try (FakeBingServer server = new FakeBingServer(options)) {
+            server.start();
+            BingTranslator translator = new BingTranslator(httpClient, true, server.getTranslatorUrl());
+            Stats stats = run(translator, 16, 10000L);
+            translator.close();
+
+            System.out.printf("[renewal] page requests: %d, %s%n", server.getPageRequestCount(), stats);
+        }
+    }
+
+    /**
+     * 注入 5% 的 401 及 5% 的验证码响应
+     */
+    private static void injection(OkHttpClient httpClient) throws Exception {
+        FakeServerOptions options = FakeServerOptions.builder()
+                .unauthorizedRate(0.05D)
+                .captchaRate(0.05D)
+                .build();
+
+        try (FakeBingServer server = new FakeBingServer(options)) {
+            server.start();
+            BingTranslator translator = new BingTranslator(httpClient, false, server.getTranslatorUrl());
+            Stats stats = run(translator, 16, 5000L);
+            translator.close();
+
+            System.out.printf("[injection] %s%n", stats);
+        }
+    }
+
+    /**
+     * 创建多个自动续约的翻译器，续约线程数保持不变
+     */
+    private static void sharedScheduler(OkHttpClient httpClient) throws Exception {
+        FakeServerOptions options = FakeServerOptions.builder()
+                .tokenExpiryInterval(2000L)
+                .build();
+
+        try (FakeBingServer server = new FakeBingServer(options)) {
+            server.start();
+            List<BingTranslator> translators = new ArrayList<>();
+
+            for (int i = 0; i < 50; i++) {
+                translators.add(new BingTranslator(httpClient, true, server.getTranslatorUrl()));
+            }
+
+            TimeUnit.MILLISECONDS.sleep(5000L);
+            long renewalThreads = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("bing-translator-renewal"))
+                    .count();
+            translators.forEach(BingTranslator::close);
+
+            long pageRequests = server.getPageRequestCount();
+            TimeUnit.MILLISECONDS.sleep(3000L);
+
+            System.out.printf("[scheduler] translators: 50, renewal threads: %d, page requests in 5s: %d, page requests after close: %d%n",
+                    renewalThreads, pageRequests, server.getPageRequestCount() - pageRequests);
+        }
+    }
+
+    /**
+     * 两个健康程度不同的端点，以及一个初始化失败的端点
+     */
+    private static void routing(OkHttpClient httpClient) throws Exception {
+        FakeServerOptions fastOptions = FakeServerOptions.builder()
+                .translateLatency(LatencyDistribution.uniform(5, 10))
+                .build();
+        FakeServerOptions slowOptions = FakeServerOptions.builder()
+                .translateLatency(LatencyDistribution.logNormal(60, 0.5))
+                .build();
+
+        try (FakeBingServer fast = new FakeBingServer(fastOptions);
+             FakeBingServer slow = new FakeBingServer(slowOptions)) {
+            fast.start();
+            slow.start();
+
+            // 未启动的端口，初始化失败后被摘除
+            String unreachable = "http://127.0.0.1:1/translator";
+            BingTranslator translator = new BingTranslator(httpClient, true,
+                    Arrays.asList(fast.getTranslatorUrl(), slow.getTranslatorUrl(), unreachable));
+            Stats stats = run(translator, 16, 5000L);
+
+            System.out.printf("[routing] fast: %d, slow: %d, %s%n",
+                    fast.getTranslateRequestCount(), slow.getTranslateRequestCount(), stats);
+
+            // 关闭 fast 端点，观察摘除后流量转移到 slow 端点
+            long fastBefore = fast.getTranslateRequestCount();
+            long slowBefore = slow.getTranslateRequestCount();
+            fast.close();
+            stats = run(translator, 16, 5000L);
+            translator.close();
+
+            System.out.printf("[routing] after fast endpoint down, fast: %d, slow: %d, %s%n",
+                    fast.getTranslateRequestCount() - fastBefore, slow.getTranslateRequestCount() - slowBefore, stats);
+        }
+    }
+
+    /**
+     * 一个接受连接但从不响应的端点，观察其探测期间其它请求是否被阻塞
+     */
+    private static void hangingEndpoint() throws Exception {
+        OkHttpClient httpClient = new OkHttpClient().newBuilder()
+                .readTimeout(3, TimeUnit.SECONDS)
+                .build();
+
+        // 不调用 accept，连接由内核完成握手后停留在 backlog 中，请求一直等到读超时
+        try (FakeBingServer fast = new FakeBingServer(FakeServerOptions.builder().build());
+             ServerSocket hanging = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            fast.start();
+
+            String hangingUrl = "http://127.0.0.1:" + hanging.getLocalPort() + "/translator";
+            BingTranslator translator = new BingTranslator(httpClient, true, Arrays.asList(fast.getTranslatorUrl(), hangingUrl));
+            // 覆盖 10s 摘除期满后的首次探测
+            Stats stats = run(translator, 4, 15000L);
+            translator.close();
+
+            System.out.printf("[hanging] %s%n", stats);
+        }
+
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    private static Stats run(BingTranslator translator, int threads, long durationMillis) throws InterruptedException {
+        Stats stats = new Stats();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        long deadline = System.currentTimeMillis() + durationMillis;
+
+        for (int i = 0; i < threads; i++) {
+            executorService.execute(() -> {
+                TranslationParams params = TranslationParams.builder()
+                        .text("你好")
+                        .fromLang("auto-detect")
+                        .toLang("en")
+                        .build();
+
+                while (System.currentTimeMillis() < deadline) {
+                    long startTime = System.currentTimeMillis();
+
+                    try {
+                        translator.translate(params);
+                        stats.success.incrementAndGet();
+                    } catch (TranslationOverLimitException e) {
+                        stats.overLimit.incrementAndGet();
+                    } catch (TranslationException | TranslationConfigLoadException e) {
+                        stats.error.incrementAndGet();
+                    }
+
+                    long elapsedMillis = System.currentTimeMillis() - startTime;
+                    stats.maxMillis.accumulateAndGet(elapsedMillis, Math::max);
+                    if (elapsedMillis > 1000L) {
+                        stats.slow.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        executorService.shutdown();
+        executorService.awaitTermination(durationMillis + 10000L, TimeUnit.MILLISECONDS);
+        stats.durationMillis = durationMillis;
+
+        return stats;
+    }
+
+    private static class Stats {
+        private final AtomicLong success = new AtomicLong();
+        private final AtomicLong overLimit = new AtomicLong();
+        private final AtomicLong error = new AtomicLong();
+        /**
+         * 耗时超过 1s 的请求数
+         */
+        private final AtomicLong slow = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private long durationMillis;
+
+        @Override
+        public String toString() {
+            long total = success.get() + overLimit.get() + error.get();
+            return String.format("requests: %d (%d/s), success: %d, overLimit: %d, error: %d, slow(>1s): %d, max: %dms",
+                    total, total * 1000 / durationMillis, success.get(), overLimit.get(), error.get(), slow.get(), maxMillis.get());
+        }
+    }
+}